@@ -0,0 +1,52 @@
+package com.autumncode.bartender;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class BudgetStatistics {
+    private final LongAdder parses = new LongAdder();
+    private final LongAdder ruleTrips = new LongAdder();
+    private final LongAdder timeTrips = new LongAdder();
+
+    void parsed() {
+        parses.increment();
+    }
+
+    void ruleTrip() {
+        ruleTrips.increment();
+    }
+
+    void timeTrip() {
+        timeTrips.increment();
+    }
+
+    /**
+     * @return the number of parse attempts, which exceeds the number of
+     * orders when orders are escalated between tiers
+     */
+    public long getParses() {
+        return parses.sum();
+    }
+
+    public long getRuleTrips() {
+        return ruleTrips.sum();
+    }
+
+    public long getTimeTrips() {
+        return timeTrips.sum();
+    }
+
+    public long getTrips() {
+        return getRuleTrips() + getTimeTrips();
+    }
+
+    public double getTripRate() {
+        long total = getParses();
+        return total == 0 ? 0.0 : (double) getTrips() / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d parse attempts over budget (%.2f%%): %d on rule invocations, %d on time",
+                getTrips(), getParses(), getTripRate() * 100, getRuleTrips(), getTimeTrips());
+    }
+}
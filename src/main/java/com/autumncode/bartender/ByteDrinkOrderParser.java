@@ -0,0 +1,14 @@
+package com.autumncode.bartender;
+
+public class ByteDrinkOrderParser extends DrinkOrderParser {
+    @Override
+    protected DrinkOrder newDrinkOrder() {
+        return new LazyDrinkOrder();
+    }
+
+    @Override
+    protected boolean assignDrink() {
+        ((LazyDrinkOrder) peek()).setRange(matchStart(), matchEnd());
+        return true;
+    }
+}
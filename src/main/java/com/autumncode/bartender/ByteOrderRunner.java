@@ -0,0 +1,77 @@
+package com.autumncode.bartender;
+
+import com.github.fge.grappa.Grappa;
+import com.github.fge.grappa.exceptions.GrappaException;
+import com.github.fge.grappa.rules.Rule;
+import com.github.fge.grappa.run.ListeningParseRunner;
+import com.github.fge.grappa.run.ParsingResult;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Runs the {@link DrinkOrderParser} grammar directly over bytes. With an
+ * ISO-8859-1 charset every input is parsed in place through a
+ * {@link ByteSequence} view; with US-ASCII or UTF-8 only pure ASCII input is,
+ * since that is where those charsets agree with Latin-1. Anything else is
+ * decoded with the configured charset first. Descriptions of successful
+ * orders are built lazily, so the bytes must not be changed until the caller
+ * has read {@link DrinkOrder#getDescription()} or is done with the order.
+ * <p>
+ * With an {@link OrderBudget}, a parse that runs out of budget ends in an
+ * {@link OrderBudget.BudgetExceededException}, after which the runner can be
+ * used again straight away.
+ */
+public class ByteOrderRunner {
+    private final Charset charset;
+    private final boolean latin1;
+    private final boolean asciiCompatible;
+    private final Rule rule;
+    private final OrderBudget budget;
+
+    public ByteOrderRunner() {
+        this(StandardCharsets.UTF_8);
+    }
+
+    public ByteOrderRunner(Charset charset) {
+        this(charset, null);
+    }
+
+    public ByteOrderRunner(Charset charset, OrderBudget budget) {
+        this.charset = charset;
+        this.budget = budget;
+        this.latin1 = charset.equals(StandardCharsets.ISO_8859_1);
+        this.asciiCompatible = charset.equals(StandardCharsets.US_ASCII)
+                || charset.equals(StandardCharsets.UTF_8);
+        this.rule = Grappa.createParser(ByteDrinkOrderParser.class).DRINKORDER();
+    }
+
+    public ParsingResult<DrinkOrder> run(byte[] bytes, int offset, int length) {
+        return run(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    public ParsingResult<DrinkOrder> run(ByteBuffer buffer) {
+        CharSequence input = latin1 || asciiCompatible && ByteSequence.isAscii(buffer)
+                ? new ByteSequence(buffer, buffer.position(), buffer.remaining())
+                : charset.decode(buffer.duplicate()).toString();
+        ListeningParseRunner<DrinkOrder> runner
+                = new ListeningParseRunner<>(rule);
+        if (budget != null) {
+            runner.registerListener(budget);
+        }
+        ParsingResult<DrinkOrder> result;
+        try {
+            result = runner.run(input);
+        } catch (GrappaException e) {
+            if (budget != null && budget.isExhausted()) {
+                throw new OrderBudget.BudgetExceededException();
+            }
+            throw e;
+        }
+        if (result.isSuccess()) {
+            ((LazyDrinkOrder) result.getTopStackValue()).bind(input);
+        }
+        return result;
+    }
+}
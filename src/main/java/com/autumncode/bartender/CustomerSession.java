@@ -0,0 +1,16 @@
+package com.autumncode.bartender;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerSession {
+    long customerId;
+    boolean tabOpen;
+    int orderCount;
+    DrinkOrder lastOrder;
+    boolean descriptionTruncated;
+}
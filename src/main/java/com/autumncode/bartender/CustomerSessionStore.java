@@ -0,0 +1,387 @@
+package com.autumncode.bartender;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fixed-size customer records kept off the Java heap, in direct buffers or a
+ * memory-mapped file. Each of the hash table's segments has its own lock.
+ */
+public class CustomerSessionStore implements Closeable {
+    static final int MAGIC = 0x42415254;
+    static final int VERSION = 1;
+    static final int SEGMENTS = 64;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 128;
+    static final int DESCRIPTION_CAPACITY = 112;
+
+    private static final int KEY = 0;
+    private static final int STATE = 8;
+    private static final int FLAGS = 9;
+    private static final int VESSEL = 10;
+    private static final int DESCRIPTION_LENGTH = 11;
+    private static final int ORDER_COUNT = 12;
+    private static final int DESCRIPTION = 16;
+
+    private static final byte EMPTY = 0;
+    private static final byte USED = 1;
+
+    private static final byte TAB_OPEN = 1;
+    private static final byte HAS_DESCRIPTION = 2;
+    private static final byte TRUNCATED = 4;
+
+    private static final Vessel[] vessels = Vessel.values();
+
+    private final Segment[] segments;
+    private final FileChannel channel;
+
+    public CustomerSessionStore(int capacity) {
+        int slots = slotsPerSegment(capacity);
+        segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(ByteBuffer.allocateDirect(slots * RECORD_SIZE), slots);
+        }
+        channel = null;
+    }
+
+    /**
+     * Opens the store kept in {@code file}, creating it if it is empty. An
+     * existing file must have been created with a capacity that sizes it the
+     * same way.
+     */
+    public CustomerSessionStore(Path file, int capacity) throws IOException {
+        int slots = slotsPerSegment(capacity);
+        channel = FileChannel.open(file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            if (header.getInt(0) == 0) {
+                header.putInt(0, MAGIC)
+                        .putInt(4, VERSION)
+                        .putInt(8, SEGMENTS)
+                        .putInt(12, slots)
+                        .putInt(16, RECORD_SIZE);
+                header.force();
+            } else {
+                if (header.getInt(0) != MAGIC
+                        || header.getInt(4) != VERSION
+                        || header.getInt(16) != RECORD_SIZE) {
+                    throw new IOException(file + " is not a customer session store");
+                }
+                int storedSlots = header.getInt(12);
+                if (header.getInt(8) != SEGMENTS
+                        || storedSlots < 16
+                        || Integer.bitCount(storedSlots) != 1
+                        || (long) storedSlots * RECORD_SIZE > Integer.MAX_VALUE) {
+                    throw new IOException(file + " has a corrupt header");
+                }
+                if (storedSlots != slots) {
+                    throw new IllegalArgumentException(file + " holds " + storedSlots
+                            + " slots per segment, capacity " + capacity + " needs " + slots);
+                }
+            }
+            long segmentSize = (long) slots * RECORD_SIZE;
+            segments = new Segment[SEGMENTS];
+            for (int i = 0; i < SEGMENTS; i++) {
+                segments[i] = new Segment(channel.map(FileChannel.MapMode.READ_WRITE,
+                        HEADER_SIZE + i * segmentSize, segmentSize), slots);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    static int slotsPerSegment(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        // keep the table at most three-quarters full so probe runs stay short
+        long wanted = ((long) capacity * 4 / 3) / SEGMENTS + 1;
+        long slots = 16;
+        while (slots < wanted) {
+            slots <<= 1;
+        }
+        if (slots * RECORD_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("capacity too large: " + capacity);
+        }
+        return (int) slots;
+    }
+
+    static long hash(long customerId) {
+        long h = customerId;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> 32) & (segments.length - 1)];
+    }
+
+    /**
+     * Records an order against the customer's tab, opening the tab if needed.
+     * A terminal order closes the tab instead and leaves the last order alone.
+     * Only the first {@value #DESCRIPTION_CAPACITY} bytes of the description's
+     * UTF-8 encoding are kept, cut back to a whole character; the session
+     * reports when that has happened.
+     *
+     * @return the customer's order count after this order
+     */
+    public int recordOrder(long customerId, DrinkOrder order) {
+        byte[] description = null;
+        int descriptionLength = 0;
+        if (!order.isTerminal() && order.getDescription() != null) {
+            description = order.getDescription().getBytes(StandardCharsets.UTF_8);
+            descriptionLength = description.length;
+            if (descriptionLength > DESCRIPTION_CAPACITY) {
+                descriptionLength = DESCRIPTION_CAPACITY;
+                // back up over continuation bytes so a character is never split
+                while (descriptionLength > 0 && (description[descriptionLength] & 0xc0) == 0x80) {
+                    descriptionLength--;
+                }
+            }
+        }
+        long hash = hash(customerId);
+        Segment segment = segmentFor(hash);
+        synchronized (segment) {
+            if (order.isTerminal()) {
+                int record = segment.find(customerId, hash);
+                if (record < 0) {
+                    return 0;
+                }
+                ByteBuffer buffer = segment.buffer;
+                buffer.put(record + FLAGS, (byte) (buffer.get(record + FLAGS) & ~TAB_OPEN));
+                return buffer.getInt(record + ORDER_COUNT);
+            }
+            int record = segment.claim(customerId, hash);
+            ByteBuffer buffer = segment.buffer;
+            byte flags = TAB_OPEN;
+            if (description != null) {
+                flags |= HAS_DESCRIPTION;
+                if (descriptionLength < description.length) {
+                    flags |= TRUNCATED;
+                }
+                buffer.put(record + DESCRIPTION_LENGTH, (byte) descriptionLength);
+                for (int i = 0; i < descriptionLength; i++) {
+                    buffer.put(record + DESCRIPTION + i, description[i]);
+                }
+            }
+            buffer.put(record + FLAGS, flags);
+            buffer.put(record + VESSEL, (byte) (order.getVessel() == null ? 0 : order.getVessel().ordinal() + 1));
+            int count = buffer.getInt(record + ORDER_COUNT) + 1;
+            buffer.putInt(record + ORDER_COUNT, count);
+            return count;
+        }
+    }
+
+    /**
+     * @return the customer's most recent non-terminal order, or null if
+     * there is none; this is what "another one" refers to
+     */
+    public DrinkOrder lastOrder(long customerId) {
+        long hash = hash(customerId);
+        Segment segment = segmentFor(hash);
+        synchronized (segment) {
+            int record = segment.find(customerId, hash);
+            return record < 0 ? null : readOrder(segment.buffer, record);
+        }
+    }
+
+    public CustomerSession get(long customerId) {
+        long hash = hash(customerId);
+        Segment segment = segmentFor(hash);
+        synchronized (segment) {
+            int record = segment.find(customerId, hash);
+            if (record < 0) {
+                return null;
+            }
+            ByteBuffer buffer = segment.buffer;
+            return new CustomerSession(customerId,
+                    (buffer.get(record + FLAGS) & TAB_OPEN) != 0,
+                    buffer.getInt(record + ORDER_COUNT),
+                    readOrder(buffer, record),
+                    (buffer.get(record + FLAGS) & TRUNCATED) != 0);
+        }
+    }
+
+    public boolean closeTab(long customerId) {
+        long hash = hash(customerId);
+        Segment segment = segmentFor(hash);
+        synchronized (segment) {
+            int record = segment.find(customerId, hash);
+            if (record < 0) {
+                return false;
+            }
+            byte flags = segment.buffer.get(record + FLAGS);
+            segment.buffer.put(record + FLAGS, (byte) (flags & ~TAB_OPEN));
+            return (flags & TAB_OPEN) != 0;
+        }
+    }
+
+    public boolean remove(long customerId) {
+        long hash = hash(customerId);
+        Segment segment = segmentFor(hash);
+        synchronized (segment) {
+            int record = segment.find(customerId, hash);
+            if (record < 0) {
+                return false;
+            }
+            segment.delete(record);
+            return true;
+        }
+    }
+
+    int longestProbe() {
+        int longest = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                longest = Math.max(longest, segment.longestProbe());
+            }
+        }
+        return longest;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    public void flush() {
+        for (Segment segment : segments) {
+            if (segment.buffer instanceof MappedByteBuffer) {
+                synchronized (segment) {
+                    ((MappedByteBuffer) segment.buffer).force();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            flush();
+            channel.close();
+        }
+    }
+
+    private static DrinkOrder readOrder(ByteBuffer buffer, int record) {
+        byte flags = buffer.get(record + FLAGS);
+        int vessel = buffer.get(record + VESSEL);
+        if (vessel == 0 && (flags & HAS_DESCRIPTION) == 0) {
+            return null;
+        }
+        String description = null;
+        if ((flags & HAS_DESCRIPTION) != 0) {
+            byte[] bytes = new byte[buffer.get(record + DESCRIPTION_LENGTH)];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(record + DESCRIPTION + i);
+            }
+            description = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new DrinkOrder(vessel == 0 ? null : vessels[vessel - 1], description, false);
+    }
+
+    private static final class Segment {
+        final ByteBuffer buffer;
+        final int mask;
+        int size;
+
+        Segment(ByteBuffer buffer, int slots) {
+            this.buffer = buffer;
+            this.mask = slots - 1;
+            for (int i = 0; i < slots; i++) {
+                if (buffer.get(i * RECORD_SIZE + STATE) == USED) {
+                    size++;
+                }
+            }
+        }
+
+        int find(long customerId, long hash) {
+            int index = (int) hash & mask;
+            for (int probe = 0; probe <= mask; probe++) {
+                int record = ((index + probe) & mask) * RECORD_SIZE;
+                if (buffer.get(record + STATE) == EMPTY) {
+                    return -1;
+                }
+                if (buffer.getLong(record + KEY) == customerId) {
+                    return record;
+                }
+            }
+            return -1;
+        }
+
+        int claim(long customerId, long hash) {
+            int index = (int) hash & mask;
+            for (int probe = 0; probe <= mask; probe++) {
+                int record = ((index + probe) & mask) * RECORD_SIZE;
+                if (buffer.get(record + STATE) == EMPTY) {
+                    buffer.putLong(record + KEY, customerId);
+                    buffer.put(record + STATE, USED);
+                    size++;
+                    return record;
+                }
+                if (buffer.getLong(record + KEY) == customerId) {
+                    return record;
+                }
+            }
+            throw new IllegalStateException("customer session store is full");
+        }
+
+        // backward-shift deletion: pull later entries of the probe run into
+        // the hole so lookups never need tombstones
+        void delete(int record) {
+            int hole = record / RECORD_SIZE;
+            int slot = hole;
+            for (int probe = 0; probe < mask; probe++) {
+                slot = (slot + 1) & mask;
+                int next = slot * RECORD_SIZE;
+                if (buffer.get(next + STATE) == EMPTY) {
+                    break;
+                }
+                int home = (int) hash(buffer.getLong(next + KEY)) & mask;
+                if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                    for (int i = 0; i < RECORD_SIZE; i++) {
+                        buffer.put(hole * RECORD_SIZE + i, buffer.get(next + i));
+                    }
+                    hole = slot;
+                }
+            }
+            for (int i = 0; i < RECORD_SIZE; i++) {
+                buffer.put(hole * RECORD_SIZE + i, (byte) 0);
+            }
+            size--;
+        }
+
+        // the longest run of occupied slots, which bounds how far any lookup,
+        // hit or miss, has to probe
+        int longestProbe() {
+            int longest = 0;
+            int run = 0;
+            for (int probe = 0; probe <= 2 * mask + 1; probe++) {
+                if (buffer.get((probe & mask) * RECORD_SIZE + STATE) == EMPTY) {
+                    run = 0;
+                } else {
+                    longest = Math.max(longest, Math.min(++run, mask + 1));
+                }
+            }
+            return longest;
+        }
+    }
+}
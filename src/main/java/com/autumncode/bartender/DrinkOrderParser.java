@@ -13,8 +13,16 @@ public class DrinkOrderParser extends BaseParser<DrinkOrder> {
             .map(Enum::name)
             .collect(Collectors.toList());
 
+    static String describe(CharSequence drink) {
+        return drink.toString().toLowerCase().replaceAll("\\s+", " ");
+    }
+
+    protected DrinkOrder newDrinkOrder() {
+        return new DrinkOrder();
+    }
+
     protected boolean assignDrink() {
-        peek().setDescription(match().toLowerCase().replaceAll("\\s+", " "));
+        peek().setDescription(describe(match()));
         return true;
     }
 
@@ -62,7 +70,7 @@ public class DrinkOrderParser extends BaseParser<DrinkOrder> {
 
     public Rule DRINKORDER() {
         return sequence(
-                push(new DrinkOrder()),
+                push(newDrinkOrder()),
                 zeroOrMore(wsp()),
                 firstOf(
                         NOTHING(),
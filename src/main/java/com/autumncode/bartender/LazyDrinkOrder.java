@@ -0,0 +1,37 @@
+package com.autumncode.bartender;
+
+/**
+ * A {@link DrinkOrder} that remembers where its description lies in the
+ * parser input and only builds the description string on first access.
+ */
+public class LazyDrinkOrder extends DrinkOrder {
+    private CharSequence source;
+    private int start = -1;
+    private int end = -1;
+
+    void setRange(int start, int end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    void bind(CharSequence source) {
+        this.source = source;
+    }
+
+    @Override
+    public String getDescription() {
+        if (source != null && start >= 0) {
+            super.setDescription(DrinkOrderParser.describe(source.subSequence(start, end)));
+            source = null;
+            start = -1;
+        }
+        return super.getDescription();
+    }
+
+    @Override
+    public void setDescription(String description) {
+        source = null;
+        start = -1;
+        super.setDescription(description);
+    }
+}
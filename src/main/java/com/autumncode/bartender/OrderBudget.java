@@ -0,0 +1,84 @@
+package com.autumncode.bartender;
+
+import com.github.fge.grappa.run.ParseRunnerListener;
+import com.github.fge.grappa.run.events.PreMatchEvent;
+import com.github.fge.grappa.run.events.PreParseEvent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits a single parse to a number of rule invocations and an amount of
+ * wall-clock time; a limit of zero means no limit. The budget is checked
+ * before every rule match, and a parse that runs out is aborted by throwing
+ * {@link BudgetExceededException} out of the listener, which the runner
+ * rethrows wrapped in a {@code GrappaException}.
+ * <p>
+ * The counters restart with every parse, so one budget can be registered
+ * with one runner after another, but not with two runners at once.
+ */
+public class OrderBudget extends ParseRunnerListener<DrinkOrder> {
+    public static final long DEFAULT_MAX_RULE_INVOCATIONS = 100000;
+    public static final long DEFAULT_MAX_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private final long maxRuleInvocations;
+    private final long maxNanos;
+    private final BudgetStatistics statistics;
+
+    private long invocations;
+    private long deadline;
+    private boolean exhausted;
+
+    public OrderBudget(BudgetStatistics statistics) {
+        this(DEFAULT_MAX_RULE_INVOCATIONS, DEFAULT_MAX_NANOS, statistics);
+    }
+
+    public OrderBudget(long maxRuleInvocations, long maxNanos, BudgetStatistics statistics) {
+        if (maxRuleInvocations < 0 || maxNanos < 0) {
+            throw new IllegalArgumentException("budget limits must not be negative");
+        }
+        this.maxRuleInvocations = maxRuleInvocations;
+        this.maxNanos = maxNanos;
+        this.statistics = statistics;
+    }
+
+    public BudgetStatistics getStatistics() {
+        return statistics;
+    }
+
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    @Override
+    public void beforeParse(PreParseEvent<DrinkOrder> event) {
+        invocations = 0;
+        deadline = System.nanoTime() + maxNanos;
+        exhausted = false;
+        statistics.parsed();
+    }
+
+    @Override
+    public void beforeMatch(PreMatchEvent<DrinkOrder> event) {
+        if (exhausted) {
+            throw new BudgetExceededException();
+        }
+        if (maxRuleInvocations > 0 && ++invocations > maxRuleInvocations) {
+            exhausted = true;
+            statistics.ruleTrip();
+            throw new BudgetExceededException();
+        }
+        if (maxNanos > 0 && System.nanoTime() - deadline > 0) {
+            exhausted = true;
+            statistics.timeTrip();
+            throw new BudgetExceededException();
+        }
+    }
+
+    public static class BudgetExceededException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BudgetExceededException() {
+            super("order budget exceeded", null, false, false);
+        }
+    }
+}
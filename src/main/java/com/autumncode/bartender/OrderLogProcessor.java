@@ -0,0 +1,228 @@
+package com.autumncode.bartender;
+
+import com.github.fge.grappa.run.ParsingResult;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Parses an order log line by line into an output file, followed by a
+ * summary of what was ordered.
+ * <p>
+ * Every {@code checkpointLines} lines the output is forced to disk and a
+ * checkpoint is written next to it, holding the input size and byte offset,
+ * the output length and the running totals. If the process dies, running it
+ * again truncates the output back to the last checkpoint and carries on from
+ * the recorded input offset, so every input line appears in the output
+ * exactly once. It refuses to resume if the input has changed size or the
+ * output is shorter than the checkpoint says. Each checkpoint costs one fsync
+ * of the output and one small file rename, so the interval bounds the
+ * overhead.
+ * <p>
+ * Each line is parsed under an {@link OrderBudget}; a line that exhausts it
+ * is written out as {@code too complicated} and counted separately from
+ * lines that were not understood. Unless a budget is passed in, only rule
+ * invocations are limited: a wall-clock limit would let the output of a
+ * resumed run depend on how busy the machine was.
+ */
+public class OrderLogProcessor {
+    private static final byte[] ARROW = " -> ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] REJECTED = "rejected".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TOO_COMPLICATED = "too complicated".getBytes(StandardCharsets.US_ASCII);
+
+    private final Path input;
+    private final Path output;
+    private final Path checkpoint;
+    private final int checkpointLines;
+    private final OrderBudget budget;
+    private final ByteOrderRunner runner;
+
+    private long inputSize;
+    private long inputOffset;
+    private long lines;
+    private long rejected;
+    private long tooComplicated;
+    private long terminal;
+    private final long[] vessels = new long[Vessel.values().length];
+
+    public OrderLogProcessor(Path input, Path output, int checkpointLines) {
+        this(input, output, output.resolveSibling(output.getFileName() + ".checkpoint"), checkpointLines);
+    }
+
+    public OrderLogProcessor(Path input, Path output, Path checkpoint, int checkpointLines) {
+        this(input, output, checkpoint, checkpointLines,
+                new OrderBudget(OrderBudget.DEFAULT_MAX_RULE_INVOCATIONS, 0, new BudgetStatistics()));
+    }
+
+    public OrderLogProcessor(Path input, Path output, Path checkpoint, int checkpointLines, OrderBudget budget) {
+        if (checkpointLines < 1) {
+            throw new IllegalArgumentException("checkpointLines must be positive: " + checkpointLines);
+        }
+        this.input = input;
+        this.output = output;
+        this.checkpoint = checkpoint;
+        this.checkpointLines = checkpointLines;
+        this.budget = budget;
+        this.runner = new ByteOrderRunner(StandardCharsets.UTF_8, budget);
+    }
+
+    public BudgetStatistics getBudgetStatistics() {
+        return budget.getStatistics();
+    }
+
+    public void run() throws IOException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output,
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            inputSize = in.size();
+            long outputLength = 0;
+            if (Files.exists(checkpoint)) {
+                Properties state = new Properties();
+                try (InputStream stream = Files.newInputStream(checkpoint)) {
+                    state.load(stream);
+                }
+                outputLength = restore(state);
+                if (Long.parseLong(state.getProperty("inputSize", "-1")) != inputSize) {
+                    throw new IOException(input + " is not the log " + checkpoint + " was taken from");
+                }
+                if (out.size() < outputLength) {
+                    throw new IOException(output + " is shorter than " + checkpoint + " records");
+                }
+                if (Boolean.parseBoolean(state.getProperty("complete"))) {
+                    return;
+                }
+            }
+            out.truncate(outputLength);
+            out.position(outputLength);
+            in.position(inputOffset);
+            process(in, out);
+        }
+    }
+
+    private void process(FileChannel in, FileChannel out) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(65536);
+        byte[] line = new byte[256];
+        int length = 0;
+        long sinceCheckpoint = 0;
+        OutputStream sink = new BufferedOutputStream(Channels.newOutputStream(out), 65536);
+        while (in.read(chunk) != -1) {
+            chunk.flip();
+            while (chunk.hasRemaining()) {
+                byte b = chunk.get();
+                if (b != '\n') {
+                    if (length == line.length) {
+                        line = Arrays.copyOf(line, length * 2);
+                    }
+                    line[length++] = b;
+                    continue;
+                }
+                handleLine(line, length, sink);
+                inputOffset += length + 1;
+                length = 0;
+                if (++sinceCheckpoint == checkpointLines) {
+                    sink.flush();
+                    out.force(false);
+                    writeCheckpoint(out.position(), false);
+                    sinceCheckpoint = 0;
+                }
+            }
+            chunk.clear();
+        }
+        if (length > 0) {
+            handleLine(line, length, sink);
+            inputOffset += length;
+        }
+        sink.write(summary().getBytes(StandardCharsets.UTF_8));
+        sink.flush();
+        out.force(false);
+        writeCheckpoint(out.position(), true);
+    }
+
+    private void handleLine(byte[] line, int length, OutputStream sink) throws IOException {
+        int end = length > 0 && line[length - 1] == '\r' ? length - 1 : length;
+        ParsingResult<DrinkOrder> result;
+        try {
+            result = runner.run(line, 0, end);
+        } catch (OrderBudget.BudgetExceededException e) {
+            result = null;
+        }
+        lines++;
+        sink.write(line, 0, end);
+        sink.write(ARROW);
+        if (result == null) {
+            tooComplicated++;
+            sink.write(TOO_COMPLICATED);
+        } else if (result.isSuccess()) {
+            DrinkOrder order = result.getTopStackValue();
+            if (order.isTerminal()) {
+                terminal++;
+            } else {
+                vessels[order.getVessel().ordinal()]++;
+            }
+            sink.write(order.toString().getBytes(StandardCharsets.UTF_8));
+        } else {
+            rejected++;
+            sink.write(REJECTED);
+        }
+        sink.write('\n');
+    }
+
+    private String summary() {
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("lines: %d, rejected: %d, too complicated: %d, terminal: %d%n",
+                lines, rejected, tooComplicated, terminal));
+        for (Vessel vessel : Vessel.values()) {
+            summary.append(String.format("%s: %d%n", vessel.name().toLowerCase(), vessels[vessel.ordinal()]));
+        }
+        return summary.toString();
+    }
+
+    private long restore(Properties state) {
+        inputOffset = Long.parseLong(state.getProperty("inputOffset"));
+        lines = Long.parseLong(state.getProperty("lines"));
+        rejected = Long.parseLong(state.getProperty("rejected"));
+        tooComplicated = Long.parseLong(state.getProperty("tooComplicated", "0"));
+        terminal = Long.parseLong(state.getProperty("terminal"));
+        for (Vessel vessel : Vessel.values()) {
+            vessels[vessel.ordinal()] = Long.parseLong(state.getProperty("vessel." + vessel.name(), "0"));
+        }
+        return Long.parseLong(state.getProperty("outputLength"));
+    }
+
+    private void writeCheckpoint(long outputLength, boolean complete) throws IOException {
+        Properties state = new Properties();
+        state.setProperty("inputSize", Long.toString(inputSize));
+        state.setProperty("inputOffset", Long.toString(inputOffset));
+        state.setProperty("outputLength", Long.toString(outputLength));
+        state.setProperty("lines", Long.toString(lines));
+        state.setProperty("rejected", Long.toString(rejected));
+        state.setProperty("tooComplicated", Long.toString(tooComplicated));
+        state.setProperty("terminal", Long.toString(terminal));
+        for (Vessel vessel : Vessel.values()) {
+            state.setProperty("vessel." + vessel.name(), Long.toString(vessels[vessel.ordinal()]));
+        }
+        state.setProperty("complete", Boolean.toString(complete));
+
+        Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream stream = new BufferedOutputStream(Channels.newOutputStream(channel))) {
+            state.store(stream, null);
+            stream.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, checkpoint, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,300 @@
+package com.autumncode.bartender;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Parses a stream of order lines into a stream of {@link OrderResult}s, in
+ * the same order as the lines arrived.
+ * <p>
+ * Lines are handed out in batches of up to {@code batchSize} to at most
+ * {@code workers} concurrent tasks, each with its own {@link OrderTaker}.
+ * At most {@code workers * batchSize} lines are ever requested from upstream
+ * and not yet delivered downstream; more are only requested as results are
+ * consumed, so a slow subscriber slows the line source down instead of
+ * filling memory.
+ */
+public class OrderPublisher implements Publisher<OrderResult> {
+    private final Publisher<String> lines;
+    private final Supplier<? extends OrderTaker> takers;
+    private final Executor executor;
+    private final int workers;
+    private final int batchSize;
+
+    public OrderPublisher(Publisher<String> lines, Supplier<? extends OrderTaker> takers) {
+        this(lines, takers, ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors(), 32);
+    }
+
+    public OrderPublisher(Publisher<String> lines,
+                          Supplier<? extends OrderTaker> takers,
+                          Executor executor,
+                          int workers,
+                          int batchSize) {
+        if (workers < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("workers and batchSize must be positive");
+        }
+        this.lines = Objects.requireNonNull(lines);
+        this.takers = Objects.requireNonNull(takers);
+        this.executor = Objects.requireNonNull(executor);
+        this.workers = workers;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super OrderResult> subscriber) {
+        lines.subscribe(new OrderSubscription(Objects.requireNonNull(subscriber)));
+    }
+
+    private final class OrderSubscription implements Subscriber<String>, Subscription {
+        private final Subscriber<? super OrderResult> downstream;
+        private final int prefetch = workers * batchSize;
+        private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+        private final Queue<OrderTaker> idle = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong requested = new AtomicLong();
+
+        // only touched from inside drain()
+        private final ArrayDeque<Batch> batches = new ArrayDeque<>();
+        private int created;
+
+        private volatile Subscription upstream;
+        private volatile boolean upstreamDone;
+        private volatile Throwable upstreamError;
+        private volatile Throwable failure;
+        private volatile boolean cancelled;
+
+        OrderSubscription(Subscriber<? super OrderResult> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            if (upstream != null) {
+                subscription.cancel();
+                return;
+            }
+            upstream = subscription;
+            try {
+                downstream.onSubscribe(this);
+            } catch (Throwable t) {
+                abandon();
+                return;
+            }
+            if (!cancelled) {
+                subscription.request(prefetch);
+            }
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (upstreamDone || cancelled) {
+                return;
+            }
+            if (inFlight.incrementAndGet() > prefetch) {
+                upstream.cancel();
+                failure = new IllegalStateException("received more lines than were requested");
+            } else {
+                pending.offer(Objects.requireNonNull(line));
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            upstreamError = Objects.requireNonNull(throwable);
+            upstreamDone = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            upstreamDone = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                failure = new IllegalArgumentException("request must be positive: " + n);
+            } else {
+                long current;
+                do {
+                    current = requested.get();
+                    if (current == Long.MAX_VALUE) {
+                        break;
+                    }
+                } while (!requested.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                upstream.cancel();
+                drain();
+            }
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (!cancelled && failure != null) {
+                    fail(failure);
+                }
+                if (cancelled) {
+                    pending.clear();
+                    batches.clear();
+                } else {
+                    dispatch();
+                    emit();
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void dispatch() {
+            while (!pending.isEmpty()) {
+                OrderTaker taker = idle.poll();
+                if (taker == null) {
+                    if (created == workers) {
+                        return;
+                    }
+                    try {
+                        taker = Objects.requireNonNull(takers.get(), "takers supplied null");
+                    } catch (Throwable t) {
+                        fail(t);
+                        return;
+                    }
+                    created++;
+                }
+                String[] lines = new String[Math.min(batchSize, pending.size())];
+                for (int i = 0; i < lines.length; i++) {
+                    lines[i] = pending.poll();
+                }
+                Batch batch = new Batch(taker, lines);
+                batches.add(batch);
+                try {
+                    executor.execute(batch);
+                } catch (RejectedExecutionException e) {
+                    fail(e);
+                    return;
+                }
+            }
+        }
+
+        private void emit() {
+            long limit = requested.get();
+            long emitted = 0;
+            while (!cancelled) {
+                Batch head = batches.peek();
+                if (head == null) {
+                    if (upstreamDone && pending.isEmpty()) {
+                        cancelled = true;
+                        try {
+                            if (upstreamError != null) {
+                                downstream.onError(upstreamError);
+                            } else {
+                                downstream.onComplete();
+                            }
+                        } catch (Throwable ignored) {
+                            // nothing left to tell the subscriber
+                        }
+                        return;
+                    }
+                    break;
+                }
+                if (!head.done) {
+                    break;
+                }
+                if (head.error != null) {
+                    fail(head.error);
+                    return;
+                }
+                if (emitted == limit) {
+                    break;
+                }
+                try {
+                    downstream.onNext(head.results[head.emitted++]);
+                } catch (Throwable t) {
+                    abandon();
+                    return;
+                }
+                emitted++;
+                if (head.emitted == head.results.length) {
+                    batches.poll();
+                }
+            }
+            if (emitted != 0 && !cancelled) {
+                if (limit != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                inFlight.addAndGet((int) -emitted);
+                upstream.request(emitted);
+            }
+        }
+
+        private void fail(Throwable throwable) {
+            abandon();
+            try {
+                downstream.onError(throwable);
+            } catch (Throwable ignored) {
+                // nothing left to tell the subscriber
+            }
+        }
+
+        // a subscriber that throws has broken its contract (rule 2.13), so
+        // treat it as cancelled instead of letting the exception reach the
+        // upstream publisher or a worker thread
+        private void abandon() {
+            cancelled = true;
+            upstream.cancel();
+        }
+
+        private final class Batch implements Runnable {
+            final OrderTaker taker;
+            final String[] lines;
+            final OrderResult[] results;
+            int emitted;
+            Throwable error;
+            volatile boolean done;
+
+            Batch(OrderTaker taker, String[] lines) {
+                this.taker = taker;
+                this.lines = lines;
+                this.results = new OrderResult[lines.length];
+            }
+
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < lines.length; i++) {
+                        results[i] = taker.take(lines[i]);
+                    }
+                } catch (Throwable t) {
+                    error = t;
+                }
+                idle.offer(taker);
+                done = true;
+                drain();
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.autumncode.bartender;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderResult {
+    String line;
+    DrinkOrder order;
+    Rejection rejection;
+
+    public static OrderResult accepted(String line, DrinkOrder order) {
+        return new OrderResult(line, order, null);
+    }
+
+    public static OrderResult rejected(String line, Rejection rejection) {
+        return new OrderResult(line, null, rejection);
+    }
+
+    public boolean isAccepted() {
+        return rejection == null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.autumncode.bartender;
+
+import com.github.fge.grappa.Grappa;
+
+/**
+ * Turns one order line into an {@link OrderResult}. Implementations hold
+ * parser state and are not thread-safe; give each thread its own.
+ */
+public interface OrderTaker {
+    OrderResult take(String line);
+
+    static OrderTaker strict() {
+        return strict(null);
+    }
+
+    static OrderTaker strict(OrderBudget budget) {
+        return new RuleOrderTaker(Grappa.createParser(DrinkOrderParser.class).DRINKORDER(), budget);
+    }
+
+    static OrderTaker polite() {
+        return polite(null);
+    }
+
+    static OrderTaker polite(OrderBudget budget) {
+        return new RuleOrderTaker(Grappa.createParser(PoliteDrinkOrderParser.class).ORDER(), budget);
+    }
+}
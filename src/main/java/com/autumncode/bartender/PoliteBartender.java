@@ -1,12 +1,13 @@
 package com.autumncode.bartender;
 
-import com.github.fge.grappa.Grappa;
-import com.github.fge.grappa.run.ListeningParseRunner;
-import com.github.fge.grappa.run.ParsingResult;
-
 import java.util.Scanner;
 
 public class PoliteBartender {
+    private final BudgetStatistics budgetStatistics = new BudgetStatistics();
+    private final TierStatistics tierStatistics = new TierStatistics();
+    private final TieredOrderTaker taker = new TieredOrderTaker(new TierPolicy(), tierStatistics,
+            new OrderBudget(budgetStatistics));
+
     public static void main(String[] args) {
         new PoliteBartender().run();
     }
@@ -19,6 +20,16 @@ public class PoliteBartender {
             String order = scanner.nextLine();
             done = order == null || handleOrder(order);
         } while (!done);
+        System.err.println("Order tiers: " + tierStatistics);
+        System.err.println("Order budgets: " + budgetStatistics);
+    }
+
+    public BudgetStatistics getBudgetStatistics() {
+        return budgetStatistics;
+    }
+
+    public TierStatistics getTierStatistics() {
+        return tierStatistics;
     }
 
     private void writePrompt() {
@@ -27,21 +38,19 @@ public class PoliteBartender {
     }
 
     private boolean handleOrder(String order) {
-        PoliteDrinkOrderParser parser
-                = Grappa.createParser(PoliteDrinkOrderParser.class);
-        ListeningParseRunner<DrinkOrder> runner
-                = new ListeningParseRunner<>(parser.ORDER());
-        ParsingResult<DrinkOrder> result = runner.run(order);
+        OrderResult result = taker.take(order);
         DrinkOrder drinkOrder;
         boolean done = false;
-        if (result.isSuccess()) {
-            drinkOrder = result.getTopStackValue();
+        if (result.isAccepted()) {
+            drinkOrder = result.getOrder();
             done = drinkOrder.isTerminal();
             if (!done) {
                 System.out.printf("Here's your %s of %s. Please drink responsibly!%n",
                         drinkOrder.getVessel().toString().toLowerCase(),
                         drinkOrder.getDescription());
             }
+        } else if (result.getRejection() == Rejection.TOO_COMPLICATED) {
+            System.out.println("That's too complicated for me. Keep it simple?");
         } else {
             System.out.println("I'm sorry, I don't understand. Try again?");
         }
@@ -3,6 +3,7 @@ package com.autumncode.bartender;
 import com.github.fge.grappa.parsers.BaseParser;
 import com.github.fge.grappa.rules.Rule;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -12,6 +13,8 @@ public class PoliteDrinkOrderParser extends BaseParser<DrinkOrder> {
             .of(Vessel.values())
             .map(Enum::name)
             .collect(Collectors.toList());
+    static final Collection<String> interjections
+            = Arrays.asList("please", "pls", "okay", "yo", "ok");
 
     protected boolean assignDrink() {
         peek().setDescription(match().toLowerCase().trim().replaceAll("\\s+", " "));
@@ -92,7 +95,7 @@ public class PoliteDrinkOrderParser extends BaseParser<DrinkOrder> {
                 zeroOrMore(wsp()),
                 optional(COMMA()),
                 zeroOrMore(wsp()),
-                trieIgnoreCase("please", "pls", "okay", "yo", "ok"),
+                trieIgnoreCase(interjections),
                 TERMINAL()
         );
     }
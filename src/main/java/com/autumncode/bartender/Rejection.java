@@ -0,0 +1,6 @@
+package com.autumncode.bartender;
+
+public enum Rejection {
+    NOT_UNDERSTOOD,
+    TOO_COMPLICATED
+}
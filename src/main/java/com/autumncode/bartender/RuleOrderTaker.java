@@ -0,0 +1,42 @@
+package com.autumncode.bartender;
+
+import com.github.fge.grappa.exceptions.GrappaException;
+import com.github.fge.grappa.rules.Rule;
+import com.github.fge.grappa.run.ListeningParseRunner;
+import com.github.fge.grappa.run.ParsingResult;
+
+public class RuleOrderTaker implements OrderTaker {
+    private final Rule rule;
+    private final OrderBudget budget;
+
+    public RuleOrderTaker(Rule rule) {
+        this(rule, null);
+    }
+
+    public RuleOrderTaker(Rule rule, OrderBudget budget) {
+        this.rule = rule;
+        this.budget = budget;
+    }
+
+    @Override
+    public OrderResult take(String line) {
+        ListeningParseRunner<DrinkOrder> runner
+                = new ListeningParseRunner<>(rule);
+        if (budget != null) {
+            runner.registerListener(budget);
+        }
+        ParsingResult<DrinkOrder> result;
+        try {
+            result = runner.run(line);
+        } catch (GrappaException e) {
+            if (budget != null && budget.isExhausted()) {
+                return OrderResult.rejected(line, Rejection.TOO_COMPLICATED);
+            }
+            throw e;
+        }
+        if (result.isSuccess()) {
+            return OrderResult.accepted(line, result.getTopStackValue());
+        }
+        return OrderResult.rejected(line, Rejection.NOT_UNDERSTOOD);
+    }
+}
@@ -4,11 +4,20 @@ import com.github.fge.grappa.Grappa;
 import com.github.fge.grappa.run.ListeningParseRunner;
 import com.github.fge.grappa.run.ParsingResult;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Scanner;
 
 public class Runner {
-    public static void main(String[] args) {
-        new Runner().run();
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 2) {
+            int checkpointLines = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+            OrderLogProcessor processor = new OrderLogProcessor(Paths.get(args[0]), Paths.get(args[1]), checkpointLines);
+            processor.run();
+            System.err.println("Order budgets: " + processor.getBudgetStatistics());
+        } else {
+            new Runner().run();
+        }
     }
 
     private void run() {
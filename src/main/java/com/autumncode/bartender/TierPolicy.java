@@ -0,0 +1,65 @@
+package com.autumncode.bartender;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * After {@code missThreshold} consecutive strict misses, sends a client's next
+ * {@code skipOrders} orders straight to the polite grammar. Shared between
+ * takers, so every method is synchronized.
+ */
+public class TierPolicy {
+    private final int missThreshold;
+    private final int skipOrders;
+    private final Map<String, int[]> clients;
+
+    public TierPolicy() {
+        this(8, 64, 10000);
+    }
+
+    public TierPolicy(int missThreshold, int skipOrders, int maxClients) {
+        if (missThreshold < 1 || skipOrders < 0 || maxClients < 1) {
+            throw new IllegalArgumentException("invalid tier policy");
+        }
+        this.missThreshold = missThreshold;
+        this.skipOrders = skipOrders;
+        this.clients = new RecentClients(maxClients);
+    }
+
+    // history[0] counts consecutive strict misses, history[1] orders left to skip
+    synchronized boolean tryStrict(String client) {
+        int[] history = clients.get(client);
+        if (history == null || history[1] == 0) {
+            return true;
+        }
+        history[1]--;
+        return false;
+    }
+
+    synchronized void strictHit(String client) {
+        clients.remove(client);
+    }
+
+    synchronized void strictMissed(String client) {
+        int[] history = clients.computeIfAbsent(client, c -> new int[2]);
+        if (++history[0] >= missThreshold) {
+            history[0] = 0;
+            history[1] = skipOrders;
+        }
+    }
+
+    private static final class RecentClients extends LinkedHashMap<String, int[]> {
+        private static final long serialVersionUID = 1L;
+        private final int maxClients;
+
+        RecentClients(int maxClients) {
+            super(16, 0.75f, true);
+            this.maxClients = maxClients;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+            return size() > maxClients;
+        }
+    }
+}
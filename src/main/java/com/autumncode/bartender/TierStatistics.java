@@ -0,0 +1,82 @@
+package com.autumncode.bartender;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class TierStatistics {
+    private final LongAdder strictAttempts = new LongAdder();
+    private final LongAdder strictHits = new LongAdder();
+    private final LongAdder strictNanos = new LongAdder();
+    private final LongAdder strictSkips = new LongAdder();
+    private final LongAdder politeAttempts = new LongAdder();
+    private final LongAdder politeHits = new LongAdder();
+    private final LongAdder politeNanos = new LongAdder();
+
+    void strict(long nanos, boolean hit) {
+        strictAttempts.increment();
+        strictNanos.add(nanos);
+        if (hit) {
+            strictHits.increment();
+        }
+    }
+
+    void strictSkipped() {
+        strictSkips.increment();
+    }
+
+    void polite(long nanos, boolean hit) {
+        politeAttempts.increment();
+        politeNanos.add(nanos);
+        if (hit) {
+            politeHits.increment();
+        }
+    }
+
+    public long getStrictAttempts() {
+        return strictAttempts.sum();
+    }
+
+    public long getStrictHits() {
+        return strictHits.sum();
+    }
+
+    public long getStrictSkips() {
+        return strictSkips.sum();
+    }
+
+    public long getPoliteAttempts() {
+        return politeAttempts.sum();
+    }
+
+    public long getPoliteHits() {
+        return politeHits.sum();
+    }
+
+    public double getStrictHitRate() {
+        return rate(getStrictHits(), getStrictAttempts());
+    }
+
+    public double getPoliteHitRate() {
+        return rate(getPoliteHits(), getPoliteAttempts());
+    }
+
+    public double getStrictMeanMicros() {
+        return rate(strictNanos.sum(), getStrictAttempts()) / 1000.0;
+    }
+
+    public double getPoliteMeanMicros() {
+        return rate(politeNanos.sum(), getPoliteAttempts()) / 1000.0;
+    }
+
+    private static double rate(long count, long total) {
+        return total == 0 ? 0.0 : (double) count / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("strict: %d/%d hits (%.1f%%), mean %.1fus, skipped %d; "
+                        + "polite: %d/%d hits (%.1f%%), mean %.1fus",
+                getStrictHits(), getStrictAttempts(), getStrictHitRate() * 100, getStrictMeanMicros(),
+                getStrictSkips(),
+                getPoliteHits(), getPoliteAttempts(), getPoliteHitRate() * 100, getPoliteMeanMicros());
+    }
+}
@@ -0,0 +1,88 @@
+package com.autumncode.bartender;
+
+/**
+ * Tries the cheap {@link DrinkOrderParser} grammar first and falls back to
+ * the {@link PoliteDrinkOrderParser} grammar only when that fails.
+ * <p>
+ * The polite grammar is the reference: a strict result is only used when the
+ * polite grammar would produce the same {@link DrinkOrder}. The one place the
+ * grammars disagree on input they both accept is a drink that ends in an
+ * interjection ("a pint of beer please"), which the strict grammar keeps as
+ * part of the description, so those orders are escalated as well.
+ * <p>
+ * With an {@link OrderBudget}, each tier gets the full budget. An order that
+ * is too complicated for the strict grammar is not escalated, since the
+ * polite grammar would only spend more on it.
+ */
+public class TieredOrderTaker implements OrderTaker {
+    private final OrderTaker strict;
+    private final OrderTaker polite;
+    private final TierPolicy policy;
+    private final TierStatistics statistics;
+
+    public TieredOrderTaker() {
+        this(new TierPolicy(), new TierStatistics());
+    }
+
+    public TieredOrderTaker(TierPolicy policy, TierStatistics statistics) {
+        this(OrderTaker.strict(), OrderTaker.polite(), policy, statistics);
+    }
+
+    public TieredOrderTaker(TierPolicy policy, TierStatistics statistics, OrderBudget budget) {
+        this(OrderTaker.strict(budget), OrderTaker.polite(budget), policy, statistics);
+    }
+
+    public TieredOrderTaker(OrderTaker strict, OrderTaker polite, TierPolicy policy, TierStatistics statistics) {
+        this.strict = strict;
+        this.polite = polite;
+        this.policy = policy;
+        this.statistics = statistics;
+    }
+
+    public TierStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public OrderResult take(String line) {
+        return take(null, line);
+    }
+
+    public OrderResult take(String client, String line) {
+        if (client == null || policy.tryStrict(client)) {
+            long start = System.nanoTime();
+            OrderResult result = strict.take(line);
+            boolean hit = result.isAccepted() && agreesWithPolite(result.getOrder());
+            statistics.strict(System.nanoTime() - start, hit);
+            if (client != null) {
+                if (hit) {
+                    policy.strictHit(client);
+                } else {
+                    policy.strictMissed(client);
+                }
+            }
+            if (hit || result.getRejection() == Rejection.TOO_COMPLICATED) {
+                return result;
+            }
+        } else {
+            statistics.strictSkipped();
+        }
+        long start = System.nanoTime();
+        OrderResult result = polite.take(line);
+        statistics.polite(System.nanoTime() - start, result.isAccepted());
+        return result;
+    }
+
+    static boolean agreesWithPolite(DrinkOrder order) {
+        String description = order.getDescription();
+        if (description == null) {
+            return true;
+        }
+        for (String interjection : PoliteDrinkOrderParser.interjections) {
+            if (description.endsWith(interjection)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,104 @@
+package com.autumncode.bartender;
+
+import com.github.fge.grappa.Grappa;
+import com.github.fge.grappa.run.ListeningParseRunner;
+import com.github.fge.grappa.run.ParsingResult;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+public class ByteOrderRunnerTest {
+    @DataProvider
+    public Object[][] drinkOrderProvider() {
+        return new Object[][]{
+                {"a glass of water", true, new DrinkOrder(Vessel.GLASS, "water", false)},
+                {"a pitcher of old 66", true, new DrinkOrder(Vessel.PITCHER, "old 66", false)},
+                {"a    pint  of Duck   Vomit   ", true, new DrinkOrder(Vessel.PINT, "duck vomit", false)},
+                {"a shoeful of motor oil", false, null},
+                {"a cup of caf\u00e9", false, null},
+                {"nothing", true, new DrinkOrder(null, null, true)},
+        };
+    }
+
+    @Test(dataProvider = "drinkOrderProvider")
+    public void testByteArraySlice(String corpus, boolean valid, DrinkOrder value) {
+        byte[] bytes = ("xx" + corpus + "yy").getBytes(StandardCharsets.UTF_8);
+        int length = corpus.getBytes(StandardCharsets.UTF_8).length;
+        ParsingResult<DrinkOrder> result = new ByteOrderRunner().run(bytes, 2, length);
+        assertEquals(result.isSuccess(), valid, "failed check on " + corpus);
+        if (result.isSuccess()) {
+            assertEquals(result.getTopStackValue(), value);
+        }
+    }
+
+    @Test(dataProvider = "drinkOrderProvider")
+    public void testMatchesStringParser(String corpus, boolean valid, DrinkOrder value) {
+        DrinkOrderParser parser = Grappa.createParser(DrinkOrderParser.class);
+        ParsingResult<DrinkOrder> expected
+                = new ListeningParseRunner<DrinkOrder>(parser.DRINKORDER()).run(corpus);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+        buffer.put(corpus.getBytes(StandardCharsets.UTF_8)).flip();
+        ParsingResult<DrinkOrder> result = new ByteOrderRunner().run(buffer);
+        assertEquals(result.isSuccess(), expected.isSuccess(), "failed check on " + corpus);
+        if (result.isSuccess()) {
+            assertEquals(result.getTopStackValue(), expected.getTopStackValue());
+        }
+    }
+
+    @Test
+    public void testNonAsciiCompatibleCharset() {
+        ParsingResult<DrinkOrder> result = new ByteOrderRunner(StandardCharsets.UTF_16LE)
+                .run(ByteBuffer.wrap("a pint of beer".getBytes(StandardCharsets.UTF_16LE)));
+        assertEquals(result.isSuccess(), true);
+        assertEquals(result.getTopStackValue(), new DrinkOrder(Vessel.PINT, "beer", false));
+    }
+
+    @Test
+    public void testLatin1() {
+        ByteOrderRunner runner = new ByteOrderRunner(StandardCharsets.ISO_8859_1);
+        ParsingResult<DrinkOrder> beer
+                = runner.run(ByteBuffer.wrap("a pint of BEER".getBytes(StandardCharsets.ISO_8859_1)));
+        ParsingResult<DrinkOrder> cafe
+                = runner.run(ByteBuffer.wrap("a cup of caf\u00e9".getBytes(StandardCharsets.ISO_8859_1)));
+        assertEquals(beer.getTopStackValue(), new DrinkOrder(Vessel.PINT, "beer", false));
+        assertEquals(cafe.isSuccess(), false);
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testSliceBeyondLimit() {
+        ByteBuffer buffer = ByteBuffer.wrap("a pint of beer".getBytes(StandardCharsets.US_ASCII));
+        buffer.limit(6);
+        new ByteSequence(buffer, 0, 10);
+    }
+
+    @Test
+    public void testBudget() {
+        BudgetStatistics statistics = new BudgetStatistics();
+        ByteOrderRunner runner = new ByteOrderRunner(StandardCharsets.US_ASCII, new OrderBudget(50, 0, statistics));
+        try {
+            runner.run(ByteBuffer.wrap("a pitcher of old 66 and another old 66 and a chaser"
+                    .getBytes(StandardCharsets.US_ASCII)));
+            fail("budget should have been exceeded");
+        } catch (OrderBudget.BudgetExceededException e) {
+            assertEquals(statistics.getRuleTrips(), 1);
+        }
+        assertEquals(runner.run(ByteBuffer.wrap("a pint of beer".getBytes(StandardCharsets.US_ASCII)))
+                .getTopStackValue(), new DrinkOrder(Vessel.PINT, "beer", false));
+    }
+
+    @Test
+    public void testRunnerIsReusable() {
+        ByteOrderRunner runner = new ByteOrderRunner();
+        DrinkOrder beer = runner.run(ByteBuffer.wrap("a pint of beer".getBytes(StandardCharsets.US_ASCII)))
+                .getTopStackValue();
+        DrinkOrder wine = runner.run(ByteBuffer.wrap("a glass of wine".getBytes(StandardCharsets.US_ASCII)))
+                .getTopStackValue();
+        assertEquals(beer, new DrinkOrder(Vessel.PINT, "beer", false));
+        assertEquals(wine, new DrinkOrder(Vessel.GLASS, "wine", false));
+    }
+}
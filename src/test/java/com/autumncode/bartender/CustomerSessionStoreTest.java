@@ -0,0 +1,174 @@
+package com.autumncode.bartender;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class CustomerSessionStoreTest {
+    @Test
+    public void testRecordOrder() {
+        CustomerSessionStore store = new CustomerSessionStore(1000);
+        assertNull(store.get(42));
+        assertEquals(store.recordOrder(42, new DrinkOrder(Vessel.PINT, "beer", false)), 1);
+        assertEquals(store.recordOrder(42, new DrinkOrder(Vessel.GLASS, "pinot noir, 1986", false)), 2);
+        assertEquals(store.get(42), new CustomerSession(42, true, 2,
+                new DrinkOrder(Vessel.GLASS, "pinot noir, 1986", false), false));
+        assertEquals(store.lastOrder(42), new DrinkOrder(Vessel.GLASS, "pinot noir, 1986", false));
+        assertNull(store.lastOrder(43));
+        assertEquals(store.size(), 1);
+    }
+
+    @Test
+    public void testTerminalOrderClosesTab() {
+        CustomerSessionStore store = new CustomerSessionStore(1000);
+        assertEquals(store.recordOrder(7, new DrinkOrder(null, null, true)), 0);
+        assertNull(store.get(7));
+        store.recordOrder(7, new DrinkOrder(Vessel.CUP, "tea", false));
+        assertEquals(store.recordOrder(7, new DrinkOrder(null, null, true)), 1);
+        assertEquals(store.get(7), new CustomerSession(7, false, 1, new DrinkOrder(Vessel.CUP, "tea", false), false));
+        assertFalse(store.closeTab(7));
+    }
+
+    @Test
+    public void testRemove() {
+        CustomerSessionStore store = new CustomerSessionStore(16);
+        for (long id = 0; id < 16; id++) {
+            store.recordOrder(id, new DrinkOrder(Vessel.BOWL, "soup " + id, false));
+        }
+        assertTrue(store.remove(3));
+        assertFalse(store.remove(3));
+        assertNull(store.get(3));
+        assertEquals(store.size(), 15);
+        for (long id = 4; id < 16; id++) {
+            assertEquals(store.lastOrder(id), new DrinkOrder(Vessel.BOWL, "soup " + id, false));
+        }
+        assertEquals(store.recordOrder(3, new DrinkOrder(Vessel.BOWL, "soup 3", false)), 1);
+    }
+
+    @Test
+    public void testChurnKeepsProbesShort() {
+        CustomerSessionStore store = new CustomerSessionStore(10000);
+        DrinkOrder order = new DrinkOrder(Vessel.PINT, "beer", false);
+        for (long id = 0; id < 5000; id++) {
+            store.recordOrder(id, order);
+        }
+        int settled = store.longestProbe();
+        for (long id = 5000; id < 500000; id++) {
+            assertTrue(store.remove(id - 5000));
+            store.recordOrder(id, order);
+        }
+        assertEquals(store.size(), 5000);
+        assertTrue(store.longestProbe() <= settled * 2 + 8, "longest probe " + store.longestProbe());
+        for (long id = 495000; id < 500000; id++) {
+            assertEquals(store.lastOrder(id), order);
+        }
+        assertNull(store.get(0));
+    }
+
+    @Test
+    public void testLongDescriptionIsTruncated() {
+        StringBuilder description = new StringBuilder("d");
+        while (description.length() <= CustomerSessionStore.DESCRIPTION_CAPACITY) {
+            description.append("\u00e9");
+        }
+        CustomerSessionStore store = new CustomerSessionStore(16);
+        assertEquals(store.recordOrder(1, new DrinkOrder(Vessel.PINT, description.toString(), false)), 1);
+        assertEquals(store.recordOrder(1, new DrinkOrder(Vessel.PINT, description.toString(), false)), 2);
+
+        CustomerSession session = store.get(1);
+        assertTrue(session.isDescriptionTruncated());
+        String stored = session.getLastOrder().getDescription();
+        assertEquals(stored, description.substring(0, 56));
+        assertTrue(stored.getBytes(StandardCharsets.UTF_8).length <= CustomerSessionStore.DESCRIPTION_CAPACITY);
+
+        store.recordOrder(1, new DrinkOrder(Vessel.PINT, "beer", false));
+        assertFalse(store.get(1).isDescriptionTruncated());
+    }
+
+    @Test
+    public void testPersistence() throws IOException {
+        Path file = Files.createTempFile("sessions", ".dat");
+        try {
+            try (CustomerSessionStore store = new CustomerSessionStore(file, 10000)) {
+                for (long id = 0; id < 5000; id++) {
+                    store.recordOrder(id, new DrinkOrder(Vessel.PINT, "stout", false));
+                }
+                store.recordOrder(17, new DrinkOrder(Vessel.MAGNUM, "champagne", false));
+            }
+            try (CustomerSessionStore store = new CustomerSessionStore(file, 10000)) {
+                assertEquals(store.size(), 5000);
+                assertEquals(store.get(17), new CustomerSession(17, true, 2,
+                        new DrinkOrder(Vessel.MAGNUM, "champagne", false), false));
+                assertEquals(store.recordOrder(4999, new DrinkOrder(Vessel.PINT, "stout", false)), 2);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testReopenChecksHeader() throws IOException {
+        Path file = Files.createTempFile("sessions", ".dat");
+        try {
+            new CustomerSessionStore(file, 10000).close();
+            try {
+                new CustomerSessionStore(file, 100000).close();
+                fail("opened with a different capacity");
+            } catch (IllegalArgumentException expected) {
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                ByteBuffer slots = ByteBuffer.allocate(4).putInt(0, 100);
+                channel.write(slots, 12);
+            }
+            try {
+                new CustomerSessionStore(file, 10000).close();
+                fail("opened with a corrupt header");
+            } catch (IOException expected) {
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        CustomerSessionStore store = new CustomerSessionStore(1000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        store.recordOrder(i % 500, new DrinkOrder(Vessel.PINT, "beer", false));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(store.size(), 500);
+        for (long id = 0; id < 500; id++) {
+            assertEquals(store.get(id).getOrderCount(), 8 * 20);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.autumncode.bartender;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class IterablePublisher implements Publisher<String> {
+    private final Iterable<String> lines;
+    private final RuntimeException failure;
+    final AtomicLong requested = new AtomicLong();
+    final AtomicLong delivered = new AtomicLong();
+    volatile long maxOutstanding;
+    volatile boolean cancelled;
+
+    public IterablePublisher(Iterable<String> lines) {
+        this(lines, null);
+    }
+
+    public IterablePublisher(Iterable<String> lines, RuntimeException failure) {
+        this.lines = lines;
+        this.failure = failure;
+    }
+
+    long outstanding() {
+        return requested.get() - delivered.get();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super String> subscriber) {
+        Iterator<String> iterator = lines.iterator();
+        subscriber.onSubscribe(new Subscription() {
+            private boolean emitting;
+            private boolean done;
+
+            @Override
+            public synchronized void request(long n) {
+                requested.addAndGet(n);
+                maxOutstanding = Math.max(maxOutstanding, outstanding());
+                if (emitting) {
+                    return;
+                }
+                emitting = true;
+                while (!done && !cancelled && outstanding() > 0) {
+                    if (iterator.hasNext()) {
+                        delivered.incrementAndGet();
+                        subscriber.onNext(iterator.next());
+                    } else {
+                        done = true;
+                        if (failure != null) {
+                            subscriber.onError(failure);
+                        } else {
+                            subscriber.onComplete();
+                        }
+                    }
+                }
+                emitting = false;
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+            }
+        });
+    }
+}
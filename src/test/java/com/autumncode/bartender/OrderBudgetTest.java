@@ -0,0 +1,68 @@
+package com.autumncode.bartender;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class OrderBudgetTest {
+    private static String pathological() {
+        StringBuilder line = new StringBuilder("a pint of duck");
+        for (int i = 0; i < 3000; i++) {
+            line.append(' ');
+        }
+        return line.append("vomit!").toString();
+    }
+
+    @Test
+    public void testRuleInvocationBudget() {
+        BudgetStatistics statistics = new BudgetStatistics();
+        OrderTaker taker = OrderTaker.polite(new OrderBudget(20000, 0, statistics));
+
+        assertEquals(taker.take(pathological()).getRejection(), Rejection.TOO_COMPLICATED);
+        assertEquals(taker.take("a pitcher of old 66, please").getOrder(),
+                new DrinkOrder(Vessel.PITCHER, "old 66", false));
+        assertEquals(taker.take("a shoeful of motor oil").getRejection(), Rejection.NOT_UNDERSTOOD);
+
+        assertEquals(statistics.getParses(), 3);
+        assertEquals(statistics.getRuleTrips(), 1);
+        assertEquals(statistics.getTimeTrips(), 0);
+    }
+
+    @Test
+    public void testTimeBudget() {
+        BudgetStatistics statistics = new BudgetStatistics();
+        OrderTaker taker = OrderTaker.polite(new OrderBudget(0, TimeUnit.MILLISECONDS.toNanos(20), statistics));
+
+        long start = System.nanoTime();
+        assertEquals(taker.take(pathological()).getRejection(), Rejection.TOO_COMPLICATED);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(statistics.getTimeTrips(), 1);
+    }
+
+    @Test
+    public void testStrictGrammarBudget() {
+        BudgetStatistics statistics = new BudgetStatistics();
+        OrderTaker taker = OrderTaker.strict(new OrderBudget(50, 0, statistics));
+
+        assertEquals(taker.take("a pitcher of old 66 and another old 66 and a chaser").getRejection(),
+                Rejection.TOO_COMPLICATED);
+        assertEquals(taker.take("nothing").getOrder(), new DrinkOrder(null, null, true));
+        assertEquals(statistics.getTrips(), 1);
+    }
+
+    @Test
+    public void testTieredBudget() {
+        BudgetStatistics budgetStatistics = new BudgetStatistics();
+        TieredOrderTaker taker = new TieredOrderTaker(new TierPolicy(), new TierStatistics(),
+                new OrderBudget(20000, 0, budgetStatistics));
+
+        assertEquals(taker.take(pathological()).getRejection(), Rejection.TOO_COMPLICATED);
+        assertEquals(taker.take("a pint of beer please").getOrder(),
+                new DrinkOrder(Vessel.PINT, "beer", false));
+        assertEquals(budgetStatistics.getTrips(), 1);
+        assertEquals(taker.getStatistics().getPoliteAttempts(), 2);
+    }
+}
@@ -0,0 +1,166 @@
+package com.autumncode.bartender;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class OrderLogProcessorTest {
+    private static final String[] orders = {
+            "a pint of beer",
+            "a glass of cabernet\r",
+            "a bowl of duck vomit",
+            "glass of acid",
+            "a shoeful of motor oil",
+            "the   PITCHER of old 66  ",
+            "a cup of caf\u00e9",
+            "nothing",
+    };
+
+    private Path directory;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("orderlog");
+    }
+
+    @AfterMethod
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private Path writeLog(int lines) throws IOException {
+        Path log = directory.resolve("orders.log");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            text.append(orders[i % orders.length]).append('\n');
+        }
+        text.append("a magnum of champagne");
+        Files.write(log, text.toString().getBytes(StandardCharsets.UTF_8));
+        return log;
+    }
+
+    private static Properties checkpoint(Path file) throws IOException {
+        Properties state = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            state.load(in);
+        }
+        return state;
+    }
+
+    @Test
+    public void testProcessLog() throws IOException {
+        Path log = writeLog(8);
+        Path output = directory.resolve("orders.out");
+        OrderLogProcessor processor = new OrderLogProcessor(log, output, 3);
+        processor.run();
+
+        List<String> lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+        assertEquals(lines.get(0), "a pint of beer -> DrinkOrder(vessel=PINT, description=beer, terminal=false)");
+        assertEquals(lines.get(1), "a glass of cabernet -> DrinkOrder(vessel=GLASS, description=cabernet, terminal=false)");
+        assertEquals(lines.get(4), "a shoeful of motor oil -> rejected");
+        assertEquals(lines.get(7), "nothing -> DrinkOrder(vessel=null, description=null, terminal=true)");
+        assertEquals(lines.get(8), "a magnum of champagne -> DrinkOrder(vessel=MAGNUM, description=champagne, terminal=false)");
+        assertEquals(lines.get(9), "lines: 9, rejected: 2, too complicated: 0, terminal: 1");
+        assertEquals(lines.get(10), "pint: 1");
+        assertTrue(Boolean.parseBoolean(checkpoint(directory.resolve("orders.out.checkpoint")).getProperty("complete")));
+        assertEquals(processor.getBudgetStatistics().getParses(), 9);
+        assertEquals(processor.getBudgetStatistics().getTrips(), 0);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testRefusesShortOutput() throws IOException {
+        Path log = writeLog(8);
+        Path output = directory.resolve("orders.out");
+        new OrderLogProcessor(log, output, 3).run();
+
+        Files.write(output, "a pint of beer".getBytes(StandardCharsets.US_ASCII));
+        new OrderLogProcessor(log, output, 3).run();
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testRefusesDifferentLog() throws IOException {
+        Path log = writeLog(8);
+        Path output = directory.resolve("orders.out");
+        new OrderLogProcessor(log, output, 3).run();
+
+        writeLog(4);
+        new OrderLogProcessor(log, output, 3).run();
+    }
+
+    @Test
+    public void testBudgetExhausted() throws IOException {
+        Path log = directory.resolve("orders.log");
+        Files.write(log, "a pint of beer\na pitcher of old 66 and another old 66 and a chaser\nnothing\n"
+                .getBytes(StandardCharsets.US_ASCII));
+        Path output = directory.resolve("orders.out");
+        BudgetStatistics statistics = new BudgetStatistics();
+        new OrderLogProcessor(log, output, directory.resolve("orders.checkpoint"), 10,
+                new OrderBudget(50, 0, statistics)).run();
+
+        List<String> lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+        assertEquals(lines.get(0), "a pint of beer -> DrinkOrder(vessel=PINT, description=beer, terminal=false)");
+        assertEquals(lines.get(1), "a pitcher of old 66 and another old 66 and a chaser -> too complicated");
+        assertEquals(lines.get(2), "nothing -> DrinkOrder(vessel=null, description=null, terminal=true)");
+        assertEquals(lines.get(3), "lines: 3, rejected: 0, too complicated: 1, terminal: 1");
+        assertEquals(statistics.getRuleTrips(), 1);
+    }
+
+    @Test
+    public void testResumeAfterKill() throws Exception {
+        Path log = writeLog(20000);
+        Path expected = directory.resolve("expected.out");
+        new OrderLogProcessor(log, expected, 500).run();
+
+        Path output = directory.resolve("orders.out");
+        Path checkpoint = directory.resolve("orders.out.checkpoint");
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (argument.startsWith("--add-opens")) {
+                command.add(argument);
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Runner.class.getName());
+        command.add(log.toString());
+        command.add(output.toString());
+        command.add("500");
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (!Files.exists(checkpoint) && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+        } finally {
+            process.destroyForcibly().waitFor();
+        }
+        assertTrue(Files.exists(checkpoint), "the batch process exited with status "
+                + process.exitValue() + " without writing a checkpoint");
+        assertFalse(Boolean.parseBoolean(checkpoint(checkpoint).getProperty("complete")),
+                "the batch finished before it could be killed");
+
+        new OrderLogProcessor(log, output, 500).run();
+        assertEquals(Files.readAllBytes(output), Files.readAllBytes(expected));
+    }
+}
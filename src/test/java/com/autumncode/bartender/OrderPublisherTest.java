@@ -0,0 +1,185 @@
+package com.autumncode.bartender;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class OrderPublisherTest {
+    private ExecutorService executor;
+
+    @BeforeMethod
+    public void createExecutor() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterMethod
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    private static List<String> corpus(int size) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            lines.add(i % 3 == 0 ? "a shoeful of motor oil " + i : "a pint of beer " + i);
+        }
+        return lines;
+    }
+
+    @Test
+    public void testResultsInOrder() throws InterruptedException {
+        List<String> lines = corpus(500);
+        IterablePublisher source = new IterablePublisher(lines);
+        CollectingSubscriber subscriber = new CollectingSubscriber(7, Long.MAX_VALUE);
+        new OrderPublisher(source, OrderTaker::strict, executor, 4, 5).subscribe(subscriber);
+
+        assertTrue(subscriber.finished.await(10, TimeUnit.SECONDS));
+        assertNull(subscriber.error);
+        assertEquals(subscriber.results.size(), lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            OrderResult result = subscriber.results.get(i);
+            assertEquals(result.getLine(), lines.get(i));
+            if (i % 3 == 0) {
+                assertEquals(result.getRejection(), Rejection.NOT_UNDERSTOOD);
+            } else {
+                assertEquals(result.getOrder(), new DrinkOrder(Vessel.PINT, "beer " + i, false));
+            }
+        }
+        assertTrue(source.maxOutstanding <= 4 * 5);
+    }
+
+    @Test
+    public void testBackpressure() throws InterruptedException {
+        IterablePublisher source = new IterablePublisher(corpus(1000));
+        CollectingSubscriber subscriber = new CollectingSubscriber(5, 5);
+        new OrderPublisher(source, OrderTaker::polite, executor, 2, 4).subscribe(subscriber);
+
+        assertTrue(subscriber.received.await(10, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertEquals(subscriber.results.size(), 5);
+        assertEquals(source.requested.get(), 2 * 4 + 5);
+        assertFalse(subscriber.finished.await(0, TimeUnit.SECONDS));
+
+        subscriber.subscription.cancel();
+        assertTrue(source.cancelled);
+    }
+
+    @Test
+    public void testUpstreamError() throws InterruptedException {
+        IllegalStateException failure = new IllegalStateException("socket closed");
+        IterablePublisher source = new IterablePublisher(corpus(10), failure);
+        CollectingSubscriber subscriber = new CollectingSubscriber(1, Long.MAX_VALUE);
+        new OrderPublisher(source, OrderTaker::strict, executor, 3, 2).subscribe(subscriber);
+
+        assertTrue(subscriber.finished.await(10, TimeUnit.SECONDS));
+        assertEquals(subscriber.results.size(), 10);
+        assertEquals(subscriber.error, failure);
+    }
+
+    @Test
+    public void testTakerFailure() throws InterruptedException {
+        IterablePublisher source = new IterablePublisher(corpus(10));
+        CollectingSubscriber subscriber = new CollectingSubscriber(10, Long.MAX_VALUE);
+        new OrderPublisher(source, () -> line -> {
+            throw new IllegalStateException("spilled");
+        }, executor, 2, 2).subscribe(subscriber);
+
+        assertTrue(subscriber.finished.await(10, TimeUnit.SECONDS));
+        assertTrue(subscriber.results.isEmpty());
+        assertEquals(subscriber.error.getMessage(), "spilled");
+        assertTrue(source.cancelled);
+    }
+
+    @Test
+    public void testTakerSupplierFailure() throws InterruptedException {
+        IterablePublisher source = new IterablePublisher(corpus(10));
+        CollectingSubscriber subscriber = new CollectingSubscriber(10, Long.MAX_VALUE);
+        new OrderPublisher(source, () -> {
+            throw new IllegalStateException("no bartenders");
+        }, executor, 2, 2).subscribe(subscriber);
+
+        assertTrue(subscriber.finished.await(10, TimeUnit.SECONDS));
+        assertTrue(subscriber.results.isEmpty());
+        assertEquals(subscriber.error.getMessage(), "no bartenders");
+        assertTrue(source.cancelled);
+    }
+
+    @Test
+    public void testSubscriberFailure() throws InterruptedException {
+        IterablePublisher source = new IterablePublisher(corpus(100));
+        CollectingSubscriber subscriber = new CollectingSubscriber(10, Long.MAX_VALUE) {
+            @Override
+            public void onNext(OrderResult result) {
+                super.onNext(result);
+                throw new IllegalStateException("dropped the glass");
+            }
+        };
+        new OrderPublisher(source, OrderTaker::strict, executor, 2, 2).subscribe(subscriber);
+
+        for (int i = 0; i < 100 && !source.cancelled; i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(source.cancelled);
+        Thread.sleep(200);
+        assertEquals(subscriber.results.size(), 1);
+        assertNull(subscriber.error);
+    }
+
+    private static class CollectingSubscriber implements Subscriber<OrderResult> {
+        final List<OrderResult> results = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch finished = new CountDownLatch(1);
+        final CountDownLatch received;
+        private final long batch;
+        private final long limit;
+        volatile Subscription subscription;
+        volatile Throwable error;
+        private long unrequested;
+
+        CollectingSubscriber(long batch, long limit) {
+            this.batch = batch;
+            this.limit = limit;
+            this.received = new CountDownLatch((int) Math.min(limit, Integer.MAX_VALUE));
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(batch);
+        }
+
+        @Override
+        public void onNext(OrderResult result) {
+            results.add(result);
+            received.countDown();
+            if (++unrequested == batch && results.size() < limit) {
+                unrequested = 0;
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            finished.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            finished.countDown();
+        }
+    }
+}
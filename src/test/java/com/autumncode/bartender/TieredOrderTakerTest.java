@@ -0,0 +1,72 @@
+package com.autumncode.bartender;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+public class TieredOrderTakerTest {
+    @DataProvider
+    public Object[][] orderProvider() {
+        return new Object[][]{
+                {"a pint of beer"},
+                {"a pitcher of old 66"},
+                {"a    pint  of duck   vomit   "},
+                {"nothing"},
+                {"nothing  "},
+                {"a pint of beer please"},
+                {"a pint of beer PLEASE"},
+                {"a glass of tokay"},
+                {"a pint of froyo"},
+                {"a pint of ok"},
+                {"a glass of water please"},
+                {"glass,water,please"},
+                {"a glass of pinot noir, 1986, ok?"},
+                {"cup , pinot noir, 1986 vintage, ok?"},
+                {" pint , duck   vomit please  "},
+                {"a shoeful of motor oil"},
+        };
+    }
+
+    @Test(dataProvider = "orderProvider")
+    public void testMatchesPoliteGrammar(String line) {
+        OrderResult expected = OrderTaker.polite().take(line);
+        OrderResult actual = new TieredOrderTaker().take(line);
+        assertEquals(actual, expected);
+    }
+
+    @Test
+    public void testStatistics() {
+        TieredOrderTaker taker = new TieredOrderTaker();
+        taker.take("a pint of beer");
+        taker.take("a glass of water");
+        taker.take("a pint of beer please");
+        taker.take("a shoeful of motor oil");
+        TierStatistics statistics = taker.getStatistics();
+        assertEquals(statistics.getStrictAttempts(), 4);
+        assertEquals(statistics.getStrictHits(), 2);
+        assertEquals(statistics.getPoliteAttempts(), 2);
+        assertEquals(statistics.getPoliteHits(), 1);
+        assertEquals(statistics.getStrictHitRate(), 0.5);
+    }
+
+    @Test
+    public void testSkipsStrictTierForPoliteClients() {
+        TieredOrderTaker taker = new TieredOrderTaker(new TierPolicy(3, 5, 100), new TierStatistics());
+        for (int i = 0; i < 8; i++) {
+            assertEquals(taker.take("gentleman", "a pint of bitter, please").getOrder(),
+                    new DrinkOrder(Vessel.PINT, "bitter", false));
+        }
+        TierStatistics statistics = taker.getStatistics();
+        assertEquals(statistics.getStrictAttempts(), 3);
+        assertEquals(statistics.getStrictSkips(), 5);
+        assertEquals(statistics.getPoliteAttempts(), 8);
+
+        taker.take("lout", "a pint of lager");
+        assertEquals(statistics.getStrictHits(), 1);
+
+        taker.take("gentleman", "a pint of bitter");
+        assertEquals(statistics.getStrictAttempts(), 5);
+        assertEquals(statistics.getStrictHits(), 2);
+    }
+}